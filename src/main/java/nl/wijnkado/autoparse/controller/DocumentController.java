@@ -1,12 +1,14 @@
 package nl.wijnkado.autoparse.controller;
 
 import nl.wijnkado.autoparse.service.DocumentService;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.nio.file.Files;
@@ -17,14 +19,26 @@ public class DocumentController {
 
     private final DocumentService documentService;
 
-    public DocumentController(DocumentService documentService) {
+    // @Lazy: injecteert een proxy, DocumentService wordt pas bij de eerste request aangemaakt
+    public DocumentController(@Lazy DocumentService documentService) {
         this.documentService = documentService;
     }
 
+    /**
+     * Word-document met alle orders zonder track & trace.
+     * Met ?onlyNew=true alleen de orders die nog niet in een eerdere batch geprint zijn.
+     */
     @GetMapping("/orders/docx")
-    public ResponseEntity<Resource> generateOrdersDocx() throws Exception {
-        Path file = documentService.generateOrdersDocument();
-        byte[] bytes = Files.readAllBytes(file);
+    public ResponseEntity<Resource> generateOrdersDocx(
+            @RequestParam(name = "onlyNew", defaultValue = "false") boolean onlyNew) throws Exception {
+        Path file = documentService.generateOrdersDocument(onlyNew);
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } finally {
+            // bestand is alleen voor deze request; output-map niet laten vollopen
+            Files.deleteIfExists(file);
+        }
         ByteArrayResource resource = new ByteArrayResource(bytes);
 
         return ResponseEntity.ok()
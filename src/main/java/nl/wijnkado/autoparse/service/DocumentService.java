@@ -8,6 +8,8 @@ import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.apache.poi.xwpf.usermodel.XWPFParagraph;
 import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTP;
@@ -23,31 +25,75 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Comparator;
 import java.util.List;
 
+/**
+ * Lazy: POI (en de grote OOXML-schema classes) pas laden bij de eerste /orders/docx,
+ * niet tijdens het opstarten.
+ */
+@Lazy
 @Service
 public class DocumentService {
 
     private final OrderService orderService;
     private final ProductService productService;
+    private final PrintedOrderStore printedOrderStore;
 
-    public DocumentService(OrderService orderService, ProductService productService) {
+    @Value("${autoparse.output-dir:output}")
+    private String outputDirectory;
+
+    private static final DateTimeFormatter BATCH_ID_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    public DocumentService(OrderService orderService, ProductService productService,
+                           PrintedOrderStore printedOrderStore) {
         this.orderService = orderService;
         this.productService = productService;
+        this.printedOrderStore = printedOrderStore;
     }
 
-    public Path generateOrdersDocument() throws IOException {
+    /**
+     * Maakt het document in een eigen tijdelijk bestand in de output-map,
+     * bv. ./output/orders_2025-12-09_123456789.docx. De aanroeper verwijdert het na gebruik.
+     *
+     * @param onlyNew true = alleen orders die nog in geen enkele eerdere batch geprint zijn
+     */
+    public Path generateOrdersDocument(boolean onlyNew) throws IOException {
         // 1) Haal orders op en sorteer: oudste ID eerst
         List<OrderDto> orders = orderService.getProcessingOrdersWithoutTrackTrace()
                 .stream()
                 .sorted(Comparator.comparingLong(OrderDto::getId))
                 .toList();
 
-        if (orders.isEmpty()) {
-            throw new IllegalStateException("Geen orders zonder track & trace gevonden.");
+        if (!onlyNew) {
+            if (orders.isEmpty()) {
+                throw new IllegalStateException("Geen orders zonder track & trace gevonden.");
+            }
+            return writeDocument(orders);
+        }
+
+        // Alleen nieuwe orders: filteren en claimen in één stap (vóór het ophalen van producten),
+        // zodat een gelijktijdige batch dezelfde orders niet ook meeneemt
+        List<Long> claimed = printedOrderStore.claimUnprinted(
+                orders.stream().map(OrderDto::getId).toList());
+        try {
+            List<OrderDto> newOrders = orders.stream()
+                    .filter(o -> claimed.contains(o.getId()))
+                    .toList();
+
+            if (newOrders.isEmpty()) {
+                throw new IllegalStateException("Geen nieuwe orders zonder track & trace sinds de vorige batch.");
+            }
+            return writeDocument(newOrders);
+        } finally {
+            // geprint of niet: de claim is klaar (mislukt = volgende batch mag ze opnieuw proberen)
+            printedOrderStore.release(claimed);
         }
+    }
 
+    private Path writeDocument(List<OrderDto> orders) throws IOException {
         XWPFDocument document = new XWPFDocument();
 
         for (int i = 0; i < orders.size(); i++) {
@@ -145,15 +191,25 @@ public class DocumentService {
             }
         }
 
-        // Output pad, bv. ./output/orders_2025-12-09.docx
-        Path outputDir = Paths.get("output");
+        // Elke request een eigen (uniek) bestand: gelijktijdige requests overschrijven
+        // nooit een bestand dat een andere request nog aan het lezen is
+        Path outputDir = Paths.get(outputDirectory);
         Files.createDirectories(outputDir);
-        Path outputFile = outputDir.resolve("orders_" + LocalDate.now() + ".docx");
+        Path outputFile = Files.createTempFile(outputDir, "orders_" + LocalDate.now() + "_", ".docx");
 
-        try (OutputStream os = Files.newOutputStream(outputFile)) {
-            document.write(os);
+        try {
+            try (OutputStream os = Files.newOutputStream(outputFile)) {
+                document.write(os);
+            }
+            document.close();
+
+            // Pas na een geslaagde write markeren als geprint
+            String batchId = LocalDateTime.now().format(BATCH_ID_FORMAT);
+            printedOrderStore.markPrinted(batchId, orders.stream().map(OrderDto::getId).toList());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(outputFile);
+            throw e;
         }
-        document.close();
 
         return outputFile;
     }
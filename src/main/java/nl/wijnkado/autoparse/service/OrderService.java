@@ -2,6 +2,7 @@ package nl.wijnkado.autoparse.service;
 
 import nl.wijnkado.autoparse.dto.OrderDto;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
@@ -55,7 +56,8 @@ public class OrderService {
                     .build(true)
                     .toUri();
 
-            OrderDto[] response = restTemplate.getForObject(uri, OrderDto[].class);
+            ResponseEntity<OrderDto[]> entity = restTemplate.getForEntity(uri, OrderDto[].class);
+            OrderDto[] response = entity.getBody();
 
             if (response == null || response.length == 0) {
                 // geen resultaten meer -> klaar
@@ -64,8 +66,14 @@ public class OrderService {
 
             allOrders.addAll(Arrays.asList(response));
 
-            // Als er minder dan pageSize terugkomt, is dit de laatste pagina
-            if (response.length < pageSize) {
+            // Woo geeft het aantal pagina's mee; de server kan per_page lager afkappen dan gevraagd
+            Integer totalPages = parseTotalPages(entity.getHeaders().getFirst("X-WP-TotalPages"));
+            if (totalPages != null) {
+                if (page >= totalPages) {
+                    break;
+                }
+            } else if (response.length < pageSize) {
+                // Geen header: minder dan pageSize terug = laatste pagina
                 break;
             }
 
@@ -86,6 +94,17 @@ public class OrderService {
     }
 }
 
+private Integer parseTotalPages(String header) {
+    if (header == null || header.isBlank()) {
+        return null;
+    }
+    try {
+        return Integer.valueOf(header.trim());
+    } catch (NumberFormatException e) {
+        return null;
+    }
+}
+
 
     /**
      * Filter de orders waar nog GEEN track & trace op zit.
@@ -0,0 +1,183 @@
+package nl.wijnkado.autoparse.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Houdt bij welke orders al in een batch geprint zijn.
+ * Append-only logbestand, één regel per order: "batchId;orderId\n".
+ * Bij het eerste gebruik wordt het bestand één keer ingelezen in een map orderId -> batchId.
+ */
+@Service
+public class PrintedOrderStore {
+
+    private static final String SEPARATOR = ";";
+
+    private final Path logFile;
+
+    // orderId -> batch waarin de order (als laatste) geprint is
+    private Map<Long, String> printed;
+
+    // lengte (bytes) van het bestand t/m de laatste afgesloten regel;
+    // -1 als het bestand netjes op een newline eindigt
+    private long truncateTo = -1;
+
+    // orders die een lopende batch geclaimd heeft, maar nog niet geprint zijn
+    private final Set<Long> reserved = new HashSet<>();
+
+    public PrintedOrderStore(@Value("${autoparse.printed-orders-file:output/printed-orders.log}") String logFile) {
+        this(Paths.get(logFile));
+    }
+
+    PrintedOrderStore(Path logFile) {
+        this.logFile = logFile;
+    }
+
+    public synchronized boolean isPrinted(Long orderId) {
+        return orderId != null && loaded().containsKey(orderId);
+    }
+
+    /**
+     * Batch waarin de order geprint is, of null als de order nog nooit geprint is.
+     */
+    public synchronized String getBatchId(Long orderId) {
+        return orderId == null ? null : loaded().get(orderId);
+    }
+
+    /**
+     * Geeft de orders terug die nog niet geprint zijn en niet door een andere batch
+     * geclaimd zijn, en claimt ze in één keer. Zo kunnen twee gelijktijdige batches
+     * nooit dezelfde order bevatten. Altijd afsluiten met {@link #release(Collection)}.
+     */
+    public synchronized List<Long> claimUnprinted(Collection<Long> orderIds) {
+        Map<Long, String> current = loaded();
+
+        List<Long> claimed = orderIds.stream()
+                .filter(id -> id != null)
+                .distinct()
+                .filter(id -> !current.containsKey(id) && !reserved.contains(id))
+                .toList();
+        reserved.addAll(claimed);
+        return claimed;
+    }
+
+    /**
+     * Geeft geclaimde orders weer vrij. Na een geslaagde {@link #markPrinted} blijven ze
+     * geprint; na een mislukte batch kan een volgende batch ze opnieuw claimen.
+     */
+    public synchronized void release(Collection<Long> orderIds) {
+        reserved.removeAll(orderIds);
+    }
+
+    /**
+     * Schrijft de orders weg als geprint in de gegeven batch.
+     * Eerst naar het logbestand, daarna pas in het geheugen, zodat een
+     * mislukte write niet stilletjes orders overslaat bij de volgende batch.
+     */
+    public synchronized void markPrinted(String batchId, Collection<Long> orderIds) {
+        if (batchId == null || batchId.isBlank() || batchId.contains(SEPARATOR)) {
+            throw new IllegalArgumentException("Ongeldige batch id: " + batchId);
+        }
+        Map<Long, String> current = loaded();
+
+        List<Long> ids = orderIds.stream()
+                .filter(id -> id != null)
+                .toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        long sizeBeforeAppend = -1;
+        try {
+            Path parent = logFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            if (truncateTo >= 0) {
+                // half geschreven regel weghalen; afsluiten met een newline zou hem geldig maken
+                try (FileChannel channel = FileChannel.open(logFile,
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                    channel.truncate(truncateTo);
+                }
+                truncateTo = -1;
+            }
+            sizeBeforeAppend = Files.exists(logFile) ? Files.size(logFile) : 0;
+            try (BufferedWriter writer = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (Long id : ids) {
+                    writer.write(batchId + SEPARATOR + id + '\n');
+                }
+            }
+        } catch (IOException e) {
+            if (sizeBeforeAppend >= 0) {
+                // write halverwege mislukt (bv. schijf vol): het stuk dat er al staat
+                // bij de volgende append weghalen, anders plakt die eraan vast
+                truncateTo = sizeBeforeAppend;
+            }
+            throw new UncheckedIOException("Kan printlog niet schrijven: " + logFile, e);
+        }
+
+        for (Long id : ids) {
+            current.put(id, batchId);
+        }
+    }
+
+    private Map<Long, String> loaded() {
+        if (printed == null) {
+            printed = readLog();
+        }
+        return printed;
+    }
+
+    private Map<Long, String> readLog() {
+        Map<Long, String> result = new HashMap<>();
+        if (!Files.exists(logFile)) {
+            return result;
+        }
+
+        try {
+            String content = Files.readString(logFile, StandardCharsets.UTF_8);
+
+            // Alleen regels die met een newline afgesloten zijn tellen mee.
+            // Een crash tijdens schrijven kan bv. "...;41" achterlaten in plaats van "...;41911".
+            int end = content.lastIndexOf('\n') + 1;
+            if (end < content.length()) {
+                truncateTo = content.substring(0, end).getBytes(StandardCharsets.UTF_8).length;
+            }
+
+            for (String line : content.substring(0, end).split("\n")) {
+                line = line.strip();
+                int idx = line.lastIndexOf(SEPARATOR);
+                if (idx <= 0) {
+                    // lege of kapotte regel -> overslaan
+                    continue;
+                }
+                try {
+                    Long orderId = Long.valueOf(line.substring(idx + 1).trim());
+                    result.put(orderId, line.substring(0, idx));
+                } catch (NumberFormatException e) {
+                    System.err.println("Ongeldige regel in printlog overgeslagen: " + line);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kan printlog niet lezen: " + logFile, e);
+        }
+        return result;
+    }
+}
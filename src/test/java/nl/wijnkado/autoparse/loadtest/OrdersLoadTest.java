@@ -0,0 +1,285 @@
+package nl.wijnkado.autoparse.loadtest;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import nl.wijnkado.autoparse.service.OrderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test voor /orders en /orders/docx tegen de lokale {@link WooCommerceStub}.
+ * Draait niet mee met een gewone build, alleen met {@code ./mvnw test -Ploadtest}.
+ *
+ * Instelbaar met {@code -Dloadtest.threads}, {@code -Dloadtest.requests},
+ * {@code -Dloadtest.docx-every} en de stub-instellingen uit {@link WooCommerceStub.Settings}.
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class OrdersLoadTest {
+
+	private static WooCommerceStub stub;
+	private static Path workDir;
+
+	@Value("${local.server.port}")
+	private int port;
+
+	@Autowired
+	private OrderService orderService;
+
+	@DynamicPropertySource
+	static void wooCommerceProperties(DynamicPropertyRegistry registry) throws IOException {
+		if (stub == null) {
+			stub = new WooCommerceStub(WooCommerceStub.Settings.fromSystemProperties());
+			workDir = Files.createTempDirectory("autoparse-loadtest");
+		}
+
+		registry.add("woocommerce.base-url", stub::baseUrl);
+		registry.add("woocommerce.consumer-key", () -> "ck_loadtest");
+		registry.add("woocommerce.consumer-secret", () -> "cs_loadtest");
+		registry.add("autoparse.output-dir", () -> workDir.resolve("output").toString());
+		registry.add("autoparse.printed-orders-file", () -> workDir.resolve("printed-orders.log").toString());
+	}
+
+	@AfterAll
+	static void stopStub() throws IOException {
+		if (stub != null) {
+			stub.close();
+		}
+		if (workDir != null) {
+			// printlog en eventuele achtergebleven documenten opruimen
+			try (Stream<Path> files = Files.walk(workDir)) {
+				for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+					Files.deleteIfExists(file);
+				}
+			}
+		}
+	}
+
+	@Test
+	void ordersAndDocxUnderConcurrentLoad() throws Exception {
+		int threads = Integer.getInteger("loadtest.threads", 8);
+		int requests = Integer.getInteger("loadtest.requests", 200);
+		// elke n-de request is een /orders/docx, de rest /orders
+		int docxEvery = Integer.getInteger("loadtest.docx-every", 5);
+
+		HttpClient client = HttpClient.newBuilder()
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+		String base = "http://localhost:" + port;
+
+		// opwarmen, telt niet mee in de resultaten
+		send(client, base + "/orders", false);
+		send(client, base + "/orders/docx", true);
+
+		// hoeveel orders de app zelf ziet (na paging), los van wat de stub aanbiedt
+		int seenByApp = countOrdersSeenByApp();
+
+		Stats orders = new Stats("/orders");
+		Stats docx = new Stats("/orders/docx");
+		AtomicInteger invalidDocx = new AtomicInteger();
+		AtomicInteger counter = new AtomicInteger();
+
+		resetHeapPeaks();
+		long start = System.nanoTime();
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				futures.add(pool.submit(() -> {
+					int n;
+					while ((n = counter.getAndIncrement()) < requests) {
+						boolean isDocx = docxEvery > 0 && n % docxEvery == 0;
+						String url = base + (isDocx ? "/orders/docx" : "/orders");
+
+						long t0 = System.nanoTime();
+						Result result = send(client, url, isDocx);
+						(isDocx ? docx : orders).record(System.nanoTime() - t0, result.ok());
+						if (result.invalidDocx()) {
+							invalidDocx.incrementAndGet();
+						}
+					}
+					return null;
+				}));
+			}
+			for (Future<?> f : futures) {
+				f.get();
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		long elapsedNanos = System.nanoTime() - start;
+
+		System.out.println("==== Load test ====");
+		System.out.printf("Stub: %d orders, %s, %d order calls, %d product calls, %d injected errors%n",
+				stub.orderCount(), stub.baseUrl(), stub.orderRequests(), stub.productRequests(), stub.injectedErrors());
+		System.out.printf("App: %d orders zonder track & trace gezien (verwacht: %s)%n",
+				seenByApp, stub.ordersWithoutBarcode() < 0 ? "onbekend" : stub.ordersWithoutBarcode());
+		System.out.printf("Threads: %d, requests: %d, duur: %.2f s, throughput: %.1f req/s%n",
+				threads, requests, elapsedNanos / 1e9, requests / (elapsedNanos / 1e9));
+		orders.print(elapsedNanos);
+		docx.print(elapsedNanos);
+		printHeap();
+
+		assertEquals(requests, orders.count() + docx.count());
+		// een 200 met een kapot document is altijd fout, ook met geïnjecteerde fouten
+		assertEquals(0, invalidDocx.get(), "Ongeldige DOCX-responses");
+		if (stub.ordersWithoutBarcode() >= 0 && seenByApp >= 0) {
+			assertEquals(stub.ordersWithoutBarcode(), seenByApp, "App ziet niet alle orders van de stub");
+		}
+		if (stub.injectedErrors() == 0) {
+			assertEquals(0, orders.failures() + docx.failures(), "Requests gefaald zonder geïnjecteerde fouten");
+		}
+	}
+
+	/**
+	 * @return aantal orders zonder track & trace, of -1 als de stub een fout injecteerde
+	 */
+	private int countOrdersSeenByApp() {
+		try {
+			return orderService.getProcessingOrdersWithoutTrackTrace().size();
+		} catch (RuntimeException e) {
+			assertTrue(stub.injectedErrors() > 0, "Orders ophalen faalde zonder geïnjecteerde fout: " + e.getMessage());
+			return -1;
+		}
+	}
+
+	private static Result send(HttpClient client, String url, boolean expectDocx) {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+				.timeout(Duration.ofSeconds(60))
+				.GET()
+				.build();
+		try {
+			HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+			if (response.statusCode() != 200) {
+				return new Result(false, false);
+			}
+			boolean invalidDocx = expectDocx && !isValidDocx(response);
+			return new Result(!invalidDocx, invalidDocx);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Niet leeg, begint met de zip-signatuur "PK" en is precies Content-Length lang.
+	 */
+	private static boolean isValidDocx(HttpResponse<byte[]> response) {
+		byte[] body = response.body();
+		if (body == null || body.length < 4 || body[0] != 'P' || body[1] != 'K') {
+			return false;
+		}
+		OptionalLong contentLength = response.headers().firstValueAsLong("Content-Length");
+		return contentLength.isPresent() && contentLength.getAsLong() == body.length;
+	}
+
+	private record Result(boolean ok, boolean invalidDocx) {
+	}
+
+	// ---- Heap ----
+
+	private static void resetHeapPeaks() {
+		System.gc();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+			}
+		}
+	}
+
+	private static void printHeap() {
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+		long max = Runtime.getRuntime().maxMemory();
+		System.out.printf("Heap: used %d MB, piek (som van pools) %d MB, max %d MB%n",
+				used >> 20, peak >> 20, max >> 20);
+	}
+
+	// ---- Latency statistieken ----
+
+	private static final class Stats {
+
+		private final String name;
+		private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+		private final AtomicInteger failures = new AtomicInteger();
+
+		Stats(String name) {
+			this.name = name;
+		}
+
+		void record(long nanos, boolean ok) {
+			latencies.add(nanos);
+			if (!ok) {
+				failures.incrementAndGet();
+			}
+		}
+
+		int count() {
+			return latencies.size();
+		}
+
+		int failures() {
+			return failures.get();
+		}
+
+		void print(long elapsedNanos) {
+			List<Long> sorted;
+			synchronized (latencies) {
+				sorted = new ArrayList<>(latencies);
+			}
+			Collections.sort(sorted);
+			if (sorted.isEmpty()) {
+				System.out.printf("%-13s geen requests%n", name);
+				return;
+			}
+			System.out.printf("%-13s n=%d fouten=%d %.1f req/s  p50=%d ms p90=%d ms p99=%d ms max=%d ms%n",
+					name, sorted.size(), failures.get(), sorted.size() / (elapsedNanos / 1e9),
+					percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+					sorted.get(sorted.size() - 1) / 1_000_000);
+		}
+
+		private static long percentile(List<Long> sorted, int p) {
+			int idx = (int) Math.ceil(p / 100.0 * sorted.size()) - 1;
+			return sorted.get(Math.max(idx, 0)) / 1_000_000;
+		}
+	}
+}
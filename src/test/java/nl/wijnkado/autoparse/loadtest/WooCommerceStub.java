@@ -0,0 +1,275 @@
+package nl.wijnkado.autoparse.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lokale WooCommerce stand-in voor load tests: serveert {@code /orders} en
+ * {@code /products/{id}} zonder netwerk.
+ *
+ * Data komt uit een opname-map ({@code orders.jsonl} met één order per regel en
+ * {@code products/<id>.json}) of wordt deterministisch gegenereerd.
+ */
+public class WooCommerceStub implements AutoCloseable {
+
+	private final Settings settings;
+	private final List<String> orders;
+	private final Map<Long, String> products;
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private final AtomicLong orderRequests = new AtomicLong();
+	private final AtomicLong productRequests = new AtomicLong();
+	private final AtomicLong injectedErrors = new AtomicLong();
+
+	// aantal gegenereerde orders zonder barcode, -1 bij opgenomen data
+	private int ordersWithoutBarcode = -1;
+
+	public WooCommerceStub(Settings settings) throws IOException {
+		this.settings = settings;
+		this.orders = new ArrayList<>();
+		this.products = new HashMap<>();
+
+		if (settings.recordings() != null) {
+			loadRecordings(settings.recordings());
+		} else {
+			generate(settings.orderCount(), settings.productCount());
+		}
+
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/orders", this::handleOrders);
+		server.createContext("/products/", this::handleProduct);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	public String baseUrl() {
+		return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+	}
+
+	public int orderCount() {
+		return orders.size();
+	}
+
+	/**
+	 * Aantal orders dat de app als "zonder track & trace" hoort te zien, of -1 als onbekend (opgenomen data).
+	 */
+	public int ordersWithoutBarcode() {
+		return ordersWithoutBarcode;
+	}
+
+	public long orderRequests() {
+		return orderRequests.get();
+	}
+
+	public long productRequests() {
+		return productRequests.get();
+	}
+
+	public long injectedErrors() {
+		return injectedErrors.get();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	// ---- Handlers ----
+
+	private void handleOrders(HttpExchange exchange) throws IOException {
+		orderRequests.incrementAndGet();
+		if (simulateLatencyAndErrors(exchange)) {
+			return;
+		}
+
+		Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+		// net als Woo: per_page afkappen op het maximum, maar altijd minstens 1
+		int perPage = Math.max(1, Math.min(parseInt(query.get("per_page"), 10), settings.maxPageSize()));
+		int page = Math.max(parseInt(query.get("page"), 1), 1);
+
+		int from = (int) Math.min((long) (page - 1) * perPage, orders.size());
+		int to = Math.min(from + perPage, orders.size());
+
+		exchange.getResponseHeaders().set("X-WP-Total", String.valueOf(orders.size()));
+		exchange.getResponseHeaders().set("X-WP-TotalPages", String.valueOf((orders.size() + perPage - 1) / perPage));
+		send(exchange, 200, "[" + String.join(",", orders.subList(from, to)) + "]");
+	}
+
+	private void handleProduct(HttpExchange exchange) throws IOException {
+		productRequests.incrementAndGet();
+		if (simulateLatencyAndErrors(exchange)) {
+			return;
+		}
+
+		String path = exchange.getRequestURI().getPath();
+		String body = null;
+		try {
+			body = products.get(Long.valueOf(path.substring(path.lastIndexOf('/') + 1)));
+		} catch (NumberFormatException e) {
+			// valt door naar 404
+		}
+
+		if (body == null) {
+			send(exchange, 404, "{\"code\":\"woocommerce_rest_product_invalid_id\"}");
+		} else {
+			send(exchange, 200, body);
+		}
+	}
+
+	/**
+	 * @return true als er al een (fout)response is verstuurd
+	 */
+	private boolean simulateLatencyAndErrors(HttpExchange exchange) throws IOException {
+		long latency = settings.latencyMillis();
+		if (settings.latencyJitterMillis() > 0) {
+			latency += ThreadLocalRandom.current().nextLong(settings.latencyJitterMillis() + 1);
+		}
+		if (latency > 0) {
+			try {
+				Thread.sleep(latency);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		if (settings.errorRate() > 0 && ThreadLocalRandom.current().nextDouble() < settings.errorRate()) {
+			injectedErrors.incrementAndGet();
+			send(exchange, 500, "{\"code\":\"internal_server_error\",\"message\":\"Stub error\"}");
+			return true;
+		}
+		return false;
+	}
+
+	private void send(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream os = exchange.getResponseBody()) {
+			os.write(bytes);
+		}
+	}
+
+	// ---- Data ----
+
+	private void loadRecordings(Path dir) throws IOException {
+		for (String line : Files.readAllLines(dir.resolve("orders.jsonl"), StandardCharsets.UTF_8)) {
+			if (!line.isBlank()) {
+				orders.add(line.trim());
+			}
+		}
+
+		Path productDir = dir.resolve("products");
+		if (Files.isDirectory(productDir)) {
+			try (var files = Files.list(productDir)) {
+				files.filter(f -> f.getFileName().toString().endsWith(".json"))
+						.forEach(f -> {
+							String name = f.getFileName().toString();
+							try {
+								products.put(Long.valueOf(name.substring(0, name.length() - ".json".length())),
+										Files.readString(f, StandardCharsets.UTF_8));
+							} catch (IOException e) {
+								throw new UncheckedIOException(e);
+							}
+						});
+			}
+		}
+	}
+
+	private void generate(int orderCount, int productCount) {
+		// vaste seed: elke run dezelfde data
+		Random random = new Random(42);
+		long firstProductId = 1000;
+		ordersWithoutBarcode = 0;
+
+		for (int p = 0; p < productCount; p++) {
+			long id = firstProductId + p;
+			products.put(id, "{\"id\":" + id
+					+ ",\"name\":\"Wijnpakket " + id + " &amp; kaas\""
+					+ ",\"short_description\":\"<p>Een heerlijke wijn&nbsp;" + id + ".</p>\""
+					+ ",\"description\":\"<p>Volle rode wijn met tonen van kers.<br/>Perfect bij kaas.</p>"
+					+ "<p>" + "Lorem ipsum dolor sit amet. ".repeat(1 + random.nextInt(20)) + "</p>\"}");
+		}
+
+		for (int o = 0; o < orderCount; o++) {
+			long id = 40000 + o;
+			long productId = firstProductId + random.nextInt(Math.max(productCount, 1));
+			// ongeveer 10% heeft al een echte barcode en valt er dus uit
+			String barcode = random.nextInt(10) == 0 ? "3SXDXU" + (100000000L + id) : "";
+			if (barcode.isEmpty()) {
+				ordersWithoutBarcode++;
+			}
+
+			orders.add("{\"id\":" + id
+					+ ",\"status\":\"processing\""
+					+ ",\"customer_note\":\"Gefeliciteerd!\\nVeel plezier met deze wijn &amp; proost.\""
+					+ ",\"line_items\":[{\"name\":\"Wijnpakket " + productId + " &amp; kaas\",\"product_id\":" + productId + "}]"
+					+ ",\"meta_data\":[{\"key\":\"_myparcel_shipments\",\"value\":"
+					+ "\"{\\\"shipment_id\\\":" + id + ",\\\"barcode\\\":\\\"" + barcode + "\\\"}\"}]}");
+		}
+	}
+
+	// ---- Helpers ----
+
+	private static Map<String, String> parseQuery(String rawQuery) {
+		Map<String, String> result = new HashMap<>();
+		if (rawQuery == null) {
+			return result;
+		}
+		for (String pair : rawQuery.split("&")) {
+			int idx = pair.indexOf('=');
+			if (idx > 0) {
+				result.put(URLDecoder.decode(pair.substring(0, idx), StandardCharsets.UTF_8),
+						URLDecoder.decode(pair.substring(idx + 1), StandardCharsets.UTF_8));
+			}
+		}
+		return result;
+	}
+
+	private static int parseInt(String value, int fallback) {
+		try {
+			return value == null ? fallback : Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			return fallback;
+		}
+	}
+
+	/**
+	 * Instellingen van de stub, standaard uit system properties ({@code -Dloadtest.*}).
+	 */
+	public record Settings(Path recordings, int orderCount, int productCount, int maxPageSize,
+			long latencyMillis, long latencyJitterMillis, double errorRate) {
+
+		public static Settings fromSystemProperties() {
+			String recordings = System.getProperty("loadtest.recordings");
+			return new Settings(
+					recordings == null || recordings.isBlank() ? null : Path.of(recordings),
+					Integer.getInteger("loadtest.orders", 300),
+					Integer.getInteger("loadtest.products", 50),
+					Math.max(1, Integer.getInteger("loadtest.max-page-size", 100)),
+					Long.getLong("loadtest.latency-ms", 50),
+					Long.getLong("loadtest.latency-jitter-ms", 25),
+					Double.parseDouble(System.getProperty("loadtest.error-rate", "0.0")));
+		}
+	}
+}
@@ -0,0 +1,174 @@
+package nl.wijnkado.autoparse.service;
+
+import nl.wijnkado.autoparse.dto.OrderDto;
+import nl.wijnkado.autoparse.dto.ProductDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentServiceTest {
+
+	@TempDir
+	Path tempDir;
+
+	private final StubProductService productService = new StubProductService();
+
+	@Test
+	void onlyNewSkipsPrintedOrdersBeforeFetchingProducts() throws Exception {
+		PrintedOrderStore store = new PrintedOrderStore(tempDir.resolve("printed-orders.log"));
+		store.markPrinted("2025-12-09T09:00:00", List.of(41911L));
+
+		DocumentService service = documentService(store, tempDir.resolve("output"));
+		Path file = service.generateOrdersDocument(true);
+
+		assertTrue(Files.size(file) > 0);
+		assertEquals(List.of(102L), productService.requested);
+		assertEquals("2025-12-09T09:00:00", store.getBatchId(41911L));
+		assertTrue(store.isPrinted(41912L));
+	}
+
+	@Test
+	void ordersOnlyMarkedPrintedAfterSuccessfulWrite() throws Exception {
+		Path log = tempDir.resolve("printed-orders.log");
+		PrintedOrderStore store = new PrintedOrderStore(log);
+
+		// output-map is een bestand -> aanmaken/schrijven faalt
+		Path notADirectory = Files.createFile(tempDir.resolve("output"));
+		DocumentService service = documentService(store, notADirectory);
+
+		assertThrows(IOException.class, () -> service.generateOrdersDocument(false));
+
+		assertFalse(store.isPrinted(41911L));
+		assertFalse(store.isPrinted(41912L));
+		assertFalse(Files.exists(log));
+	}
+
+	@Test
+	void concurrentOnlyNewBatchesNeverShareOrders() throws Exception {
+		PrintedOrderStore store = new PrintedOrderStore(tempDir.resolve("printed-orders.log"));
+		// beide calls hebben de orders opgehaald voordat een van beide filtert
+		CyclicBarrier bothFetched = new CyclicBarrier(2);
+		DocumentService service = documentService(store, tempDir.resolve("output"), new StubOrderService(bothFetched));
+
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		List<Throwable> failures = new ArrayList<>();
+		int succeeded = 0;
+		try {
+			List<Future<Path>> calls = List.of(
+					pool.submit(() -> service.generateOrdersDocument(true)),
+					pool.submit(() -> service.generateOrdersDocument(true)));
+			for (Future<Path> call : calls) {
+				try {
+					call.get(30, TimeUnit.SECONDS);
+					succeeded++;
+				} catch (ExecutionException e) {
+					failures.add(e.getCause());
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		// eerste batch claimt beide orders, de tweede heeft niets nieuws meer
+		assertEquals(1, succeeded);
+		assertEquals(1, failures.size());
+		assertInstanceOf(IllegalStateException.class, failures.get(0));
+		assertEquals(List.of(101L, 102L), productService.requested.stream().sorted().toList());
+		assertTrue(store.isPrinted(41911L));
+		assertTrue(store.isPrinted(41912L));
+	}
+
+	@Test
+	void failedOnlyNewBatchReleasesClaim() throws Exception {
+		PrintedOrderStore store = new PrintedOrderStore(tempDir.resolve("printed-orders.log"));
+
+		Path notADirectory = Files.createFile(tempDir.resolve("output"));
+		assertThrows(IOException.class, () -> documentService(store, notADirectory).generateOrdersDocument(true));
+
+		// volgende batch mag dezelfde orders opnieuw proberen
+		assertEquals(List.of(41911L, 41912L), store.claimUnprinted(List.of(41911L, 41912L)));
+	}
+
+	private DocumentService documentService(PrintedOrderStore store, Path outputDir) {
+		return documentService(store, outputDir, new StubOrderService(null));
+	}
+
+	private DocumentService documentService(PrintedOrderStore store, Path outputDir, OrderService orderService) {
+		DocumentService service = new DocumentService(orderService, productService, store);
+		ReflectionTestUtils.setField(service, "outputDirectory", outputDir.toString());
+		return service;
+	}
+
+	private static OrderDto order(long id, long productId) {
+		OrderDto.LineItem item = new OrderDto.LineItem();
+		item.setName("Wijnpakket " + productId);
+		item.setProductId(productId);
+
+		OrderDto order = new OrderDto();
+		order.setId(id);
+		order.setStatus("processing");
+		order.setCustomerNote("Proost!");
+		order.setLineItems(List.of(item));
+		return order;
+	}
+
+	private static class StubOrderService extends OrderService {
+
+		private final CyclicBarrier barrier;
+
+		StubOrderService(CyclicBarrier barrier) {
+			super(null);
+			this.barrier = barrier;
+		}
+
+		@Override
+		public List<OrderDto> getProcessingOrdersWithoutTrackTrace() {
+			if (barrier != null) {
+				try {
+					barrier.await(10, TimeUnit.SECONDS);
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}
+			return List.of(order(41912L, 102L), order(41911L, 101L));
+		}
+	}
+
+	private static class StubProductService extends ProductService {
+
+		final List<Long> requested = Collections.synchronizedList(new ArrayList<>());
+
+		StubProductService() {
+			super(null);
+		}
+
+		@Override
+		public ProductDto getProductById(Long productId) {
+			requested.add(productId);
+			ProductDto product = new ProductDto();
+			product.setId(productId);
+			product.setDescription("<p>Volle rode wijn.</p>");
+			return product;
+		}
+	}
+
+}
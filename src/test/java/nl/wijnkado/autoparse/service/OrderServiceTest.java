@@ -0,0 +1,82 @@
+package nl.wijnkado.autoparse.service;
+
+import nl.wijnkado.autoparse.dto.OrderDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.queryParam;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class OrderServiceTest {
+
+	private MockRestServiceServer server;
+	private OrderService orderService;
+
+	@BeforeEach
+	void setUp() {
+		RestTemplate restTemplate = new RestTemplate();
+		server = MockRestServiceServer.bindTo(restTemplate).build();
+
+		orderService = new OrderService(restTemplate);
+		ReflectionTestUtils.setField(orderService, "baseUrl", "http://woo.test/wp-json/wc/v3");
+		ReflectionTestUtils.setField(orderService, "consumerKey", "ck");
+		ReflectionTestUtils.setField(orderService, "consumerSecret", "cs");
+	}
+
+	@Test
+	void followsTotalPagesWhenServerCapsPageSize() {
+		// we vragen 100 per pagina, de server geeft er maar 2
+		expectPage(1, orders(1, 2), "3");
+		expectPage(2, orders(3, 2), "3");
+		expectPage(3, orders(5, 1), "3");
+
+		List<OrderDto> result = orderService.getProcessingOrders();
+
+		assertEquals(List.of(1L, 2L, 3L, 4L, 5L), result.stream().map(OrderDto::getId).toList());
+		server.verify();
+	}
+
+	@Test
+	void withoutHeaderShortPageIsLastPage() {
+		expectPage(1, orders(1, 100), null);
+		expectPage(2, orders(101, 3), null);
+
+		assertEquals(103, orderService.getProcessingOrders().size());
+		server.verify();
+	}
+
+	@Test
+	void unparsableHeaderFallsBackToShortPageRule() {
+		expectPage(1, orders(1, 2), "twee");
+
+		assertEquals(2, orderService.getProcessingOrders().size());
+		server.verify();
+	}
+
+	private void expectPage(int page, String body, String totalPages) {
+		HttpHeaders headers = new HttpHeaders();
+		if (totalPages != null) {
+			headers.set("X-WP-TotalPages", totalPages);
+		}
+		server.expect(queryParam("page", String.valueOf(page)))
+				.andExpect(queryParam("per_page", "100"))
+				.andRespond(withSuccess(body, MediaType.APPLICATION_JSON).headers(headers));
+	}
+
+	private static String orders(long firstId, int count) {
+		return LongStream.range(firstId, firstId + count)
+				.mapToObj(id -> "{\"id\":" + id + ",\"status\":\"processing\"}")
+				.collect(Collectors.joining(",", "[", "]"));
+	}
+
+}
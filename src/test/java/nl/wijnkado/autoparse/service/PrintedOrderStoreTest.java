@@ -0,0 +1,75 @@
+package nl.wijnkado.autoparse.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrintedOrderStoreTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void printedOrdersSurviveRestart() {
+		Path log = tempDir.resolve("printed-orders.log");
+
+		PrintedOrderStore store = new PrintedOrderStore(log);
+		assertFalse(store.isPrinted(41911L));
+
+		store.markPrinted("2025-12-09T09:00:00", Arrays.asList(41911L, null, 41912L));
+		store.markPrinted("2025-12-09T14:00:00", List.of(41912L));
+
+		PrintedOrderStore reopened = new PrintedOrderStore(log);
+		assertTrue(reopened.isPrinted(41911L));
+		assertEquals("2025-12-09T09:00:00", reopened.getBatchId(41911L));
+		assertEquals("2025-12-09T14:00:00", reopened.getBatchId(41912L));
+		assertNull(reopened.getBatchId(41913L));
+	}
+
+	@Test
+	void claimSkipsPrintedAndClaimedOrders() {
+		PrintedOrderStore store = new PrintedOrderStore(tempDir.resolve("printed-orders.log"));
+		store.markPrinted("2025-12-09T09:00:00", List.of(41911L));
+
+		List<Long> first = store.claimUnprinted(List.of(41911L, 41912L, 41913L));
+		assertEquals(List.of(41912L, 41913L), first);
+		assertEquals(List.of(), store.claimUnprinted(List.of(41912L, 41913L)));
+
+		store.markPrinted("2025-12-09T14:00:00", List.of(41912L));
+		store.release(first);
+
+		// 41912 is geprint, 41913 weer vrij
+		assertEquals(List.of(41913L), store.claimUnprinted(List.of(41912L, 41913L)));
+	}
+
+	@Test
+	void skipsBrokenLines() throws Exception {
+		Path log = tempDir.resolve("printed-orders.log");
+		// laatste regel half geschreven: "...;41" in plaats van "...;41912"
+		Files.writeString(log, "2025-12-09T09:00:00;41911\n\nkapot\n2025-12-09T09:00:00;41");
+
+		PrintedOrderStore store = new PrintedOrderStore(log);
+		assertTrue(store.isPrinted(41911L));
+		assertFalse(store.isPrinted(41L));
+		assertFalse(store.isPrinted(null));
+
+		// volgende append haalt de kapotte regel weg in plaats van hem af te sluiten
+		store.markPrinted("2025-12-09T14:00:00", List.of(41912L));
+
+		PrintedOrderStore reopened = new PrintedOrderStore(log);
+		assertTrue(reopened.isPrinted(41911L));
+		assertEquals("2025-12-09T14:00:00", reopened.getBatchId(41912L));
+		assertFalse(reopened.isPrinted(41L));
+		assertEquals("2025-12-09T09:00:00;41911\n\nkapot\n2025-12-09T14:00:00;41912\n", Files.readString(log));
+	}
+
+}
@@ -0,0 +1,137 @@
+package nl.wijnkado.autoparse.startup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Meet hoe snel de verpakte applicatie klaar is voor requests.
+ * Wordt door het {@code fast-startup} profiel in de verify-fase gedraaid:
+ * start de uitgepakte jar een paar keer met AOT + CDS-archief en leest
+ * "Started AutoparseApplication in X seconds (process running for Y)" uit de log.
+ *
+ * Argumenten: {@code <jar> <cds-archief> <resultaatbestand>}.
+ * Met {@code -Dstartup.max-millis=1000} faalt de build als de mediaan daarboven zit.
+ * Het archief is verplicht en wordt met {@code -Xshare:on} geladen: een ontbrekend of
+ * onbruikbaar archief laat de run falen in plaats van stilletjes zonder CDS te meten.
+ */
+public class StartupBenchmark {
+
+	private static final Pattern STARTED = Pattern.compile(
+			"Started \\S+ in ([0-9.,]+) seconds \\(process running for ([0-9.,]+)\\)");
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 3) {
+			throw new IllegalArgumentException("Gebruik: StartupBenchmark <jar> <cds-archief> <resultaatbestand>");
+		}
+		Path jar = Path.of(args[0]);
+		Path archive = Path.of(args[1]);
+		Path result = Path.of(args[2]);
+
+		int runs = Integer.getInteger("startup.runs", 3);
+		long maxMillis = Long.getLong("startup.max-millis", 0);
+		long timeoutSeconds = Long.getLong("startup.timeout-seconds", 60);
+
+		// training run kan met exit code 0 eindigen zonder archief te schrijven
+		if (!Files.isRegularFile(archive)) {
+			throw new IllegalStateException("Geen CDS-archief gevonden: " + archive
+					+ " (training run mislukt?)");
+		}
+
+		List<Long> readyMillis = new ArrayList<>();
+		for (int i = 0; i < runs; i++) {
+			long millis = measure(jar, archive, timeoutSeconds);
+			System.out.printf("Startup run %d: %d ms%n", i + 1, millis);
+			readyMillis.add(millis);
+		}
+		Collections.sort(readyMillis);
+		long median = readyMillis.get(readyMillis.size() / 2);
+
+		String line = String.format("%s cds=%s runs=%d min=%d ms median=%d ms max=%d ms%n",
+				LocalDateTime.now(), archive.getFileName(), runs,
+				readyMillis.get(0), median, readyMillis.get(readyMillis.size() - 1));
+		System.out.print("Startup benchmark: " + line);
+
+		Files.createDirectories(result.toAbsolutePath().getParent());
+		Files.writeString(result, line, StandardCharsets.UTF_8);
+
+		if (maxMillis > 0 && median > maxMillis) {
+			throw new IllegalStateException("Startup te traag: mediaan " + median
+					+ " ms, maximum is " + maxMillis + " ms");
+		}
+	}
+
+	/**
+	 * @param archive CDS-archief, moet bestaan
+	 * @return ms vanaf JVM-start tot de applicatie klaar is ("process running for")
+	 */
+	private static long measure(Path jar, Path archive, long timeoutSeconds) throws IOException, InterruptedException {
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		command.add("-XX:SharedArchiveFile=" + archive);
+		// archief moet gebruikt worden, anders stopt de JVM met een fout
+		command.add("-Xshare:on");
+		command.add("-Dspring.aot.enabled=true");
+		command.add("-jar");
+		command.add(jar.toString());
+		command.add("--server.port=0");
+		command.add("--woocommerce.base-url=http://localhost");
+		command.add("--woocommerce.consumer-key=benchmark");
+		command.add("--woocommerce.consumer-secret=benchmark");
+
+		Process process = new ProcessBuilder(command)
+				.redirectErrorStream(true)
+				.start();
+
+		// log lezen in een eigen thread, zodat een hangende applicatie de build niet blokkeert
+		CompletableFuture<Long> started = CompletableFuture.supplyAsync(() -> readStartedMillis(process));
+		try {
+			return started.get(timeoutSeconds, TimeUnit.SECONDS);
+		} catch (TimeoutException e) {
+			throw new IllegalStateException("Applicatie niet gestart binnen " + timeoutSeconds + " s");
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+		} finally {
+			process.destroy();
+			if (!process.waitFor(10, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+			}
+		}
+	}
+
+	private static long readStartedMillis(Process process) {
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				Matcher m = STARTED.matcher(line);
+				if (m.find()) {
+					return Math.round(Double.parseDouble(m.group(2).replace(',', '.')) * 1000);
+				}
+				// bv. CDS-fouten van de JVM zichtbaar maken
+				System.out.println("  | " + line);
+			}
+			throw new IllegalStateException("Applicatie gestopt zonder 'Started' logregel, exit code "
+					+ process.waitFor());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+}